@@ -48,7 +48,7 @@ public final class TimeAgo {
      *
      * @author marlonlom, yuanuo
      */
-    protected enum Periods {
+    public enum Periods {
         NOW("ml.timeago.now", distance -> distance == 0L),
         ONEMINUTE_PAST("ml.timeago.oneminute.past", distance -> distance == 1L),
         XMINUTES_PAST("ml.timeago.xminutes.past", distance -> distance >= 2 && distance <= 44),
@@ -64,7 +64,7 @@ public final class TimeAgo {
         OVERAYEAR_PAST("ml.timeago.overayear.past", distance -> distance >= 655200 && distance <= 914399),
         ALMOSTTWOYEARS_PAST("ml.timeago.almosttwoyears.past", distance -> distance >= 914400 && distance <= 1051199),
         XYEARS_PAST("ml.timeago.xyears.past", distance -> Math.round(distance / 525600F) > 1),
-        ONEMINUTE_FUTURE("ml.timeago.oneminute.future", distance -> distance.intValue() == -1),
+        ONEMINUTE_FUTURE("ml.timeago.oneminute.future", distance -> distance == -1L),
         XMINUTES_FUTURE("ml.timeago.xminutes.future", distance -> distance <= -2 && distance >= -44),
         ABOUTANHOUR_FUTURE("ml.timeago.aboutanhour.future", distance -> distance <= -45 && distance >= -89),
         XHOURS_FUTURE("ml.timeago.xhours.future", distance -> distance <= -90 && distance >= -1439),
@@ -97,7 +97,7 @@ public final class TimeAgo {
          * @param distanceMinutes the distance minutes
          * @return the periods
          */
-        private static Periods findByDistanceMinutes(long distanceMinutes) {
+        static Periods findByDistanceMinutes(long distanceMinutes) {
             for (Periods period : Periods.values())
                 if (period.predicate.test(distanceMinutes))
                     return period;
@@ -177,7 +177,18 @@ public final class TimeAgo {
      * @return the time distance in minutes
      */
     private static long getTimeDistanceInMinutes(long time) {
-        final long timeDistance = System.currentTimeMillis() - time;
+        return getTimeDistanceInMinutes(time, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the time distance in minutes, relative to the given reference time.
+     *
+     * @param time the date time
+     * @param now  the reference date time
+     * @return the time distance in minutes
+     */
+    static long getTimeDistanceInMinutes(long time, long now) {
+        final long timeDistance = now - time;
         return Math.round(timeDistance / 1000D / 60);
     }
 
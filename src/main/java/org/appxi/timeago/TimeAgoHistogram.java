@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2020, marlonlom, yuanuo
+ *
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.appxi.timeago;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import static org.appxi.timeago.TimeAgo.Periods;
+
+/**
+ * The Class **TimeAgoHistogram**. Counts a live set of date times by their 'time ago' bucket.
+ * <br></br>
+ * <br></br>
+ * Date times can be added and removed at any moment. When the reference time advances, only the
+ * oldest date times of each bucket are visited, up to the bucket's upper distance, and moved into
+ * the bucket they now belong to; the whole set is never classified again.
+ * <br></br>
+ * <br></br>
+ * Usage:
+ * <br></br>
+ * <br></br>
+ * *(1) Keyed by period:*
+ * <pre>
+ * TimeAgoHistogram&lt;TimeAgo.Periods&gt; histogram = TimeAgoHistogram.byPeriod(System.currentTimeMillis());
+ * histogram.add(ticket.getCreatedTime());
+ * histogram.advanceTo(System.currentTimeMillis());
+ * histogram.count(TimeAgo.Periods.ONEDAY_PAST);
+ * </pre>
+ * <br></br>
+ * *(2) Keyed by period and rounded value ("3 hours ago", "4 hours ago", ...):*
+ * <pre>
+ * TimeAgoHistogram&lt;TimeAgoHistogram.PeriodValue&gt; histogram = TimeAgoHistogram.byPeriodValue(System.currentTimeMillis());
+ * </pre>
+ * <br></br>
+ * Writes ({@link #add(long)}, {@link #remove(long)}, {@link #advanceTo(long)}) are serialized,
+ * while {@link #count(Object)}, {@link #counts()} and {@link #size()} can be called from any thread
+ * without locking. Each count is always accurate on its own, but a reader running concurrently with
+ * {@link #advanceTo(long)} may see an item already removed from its old bucket and not yet added to
+ * its new one.
+ *
+ * @param <K> the bucket key type
+ * @author yuanuo
+ */
+public final class TimeAgoHistogram<K> {
+    /**
+     * The bucket key made of a period and its rounded value, such as (XHOURS_PAST, 3) for "3 hours ago".
+     * Periods without a value (for example NOW or ONEDAY_PAST) always use 0.
+     *
+     * @param period the period
+     * @param value  the rounded value of the period
+     */
+    public record PeriodValue(Periods period, long value) {
+    }
+
+    /**
+     * Creates a histogram keyed by {@link Periods}.
+     *
+     * @param now the initial reference time
+     * @return the histogram
+     */
+    public static TimeAgoHistogram<Periods> byPeriod(long now) {
+        return new TimeAgoHistogram<>(now, Periods::findByDistanceMinutes);
+    }
+
+    /**
+     * Creates a histogram keyed by {@link PeriodValue}.
+     *
+     * @param now the initial reference time
+     * @return the histogram
+     */
+    public static TimeAgoHistogram<PeriodValue> byPeriodValue(long now) {
+        return new TimeAgoHistogram<>(now, TimeAgoHistogram::periodValue);
+    }
+
+    /**
+     * Returns the period and its rounded value, with the same rounding as {@link TimeAgo#using(long)}.
+     *
+     * @param dim the time distance in minutes
+     * @return the period value
+     */
+    static PeriodValue periodValue(long dim) {
+        final Periods period = Periods.findByDistanceMinutes(dim);
+        final long value = switch (period) {
+            case XMINUTES_PAST, XMINUTES_FUTURE -> Math.abs(dim);
+            case XHOURS_PAST, XHOURS_FUTURE -> Math.abs(Math.round(dim / 60F));
+            case XDAYS_PAST, XDAYS_FUTURE -> Math.abs(Math.round(dim / 1440F));
+            case XWEEKS_PAST -> Math.round(dim / 10080F);
+            case XMONTHS_PAST, XMONTHS_FUTURE -> Math.abs(Math.round(dim / 43200F));
+            case XYEARS_PAST, XYEARS_FUTURE -> Math.abs(Math.round(dim / 525600F));
+            default -> 0L;
+        };
+        return new PeriodValue(period, value);
+    }
+
+    /**
+     * The bucket of all date times sharing a key.
+     */
+    private static final class Bucket<K> {
+        private final K key;
+        /**
+         * The lowest distance in minutes that no longer belongs to this bucket, Long.MAX_VALUE if unbounded.
+         */
+        private final long upperDistance;
+        /**
+         * The date times of this bucket and their multiplicity, oldest first.
+         */
+        private final TreeMap<Long, Integer> times = new TreeMap<>();
+        private final AtomicLong count = new AtomicLong();
+
+        Bucket(K key, long upperDistance) {
+            this.key = key;
+            this.upperDistance = upperDistance;
+        }
+    }
+
+    /**
+     * Maps a time distance in minutes to its key. Equal keys must form a single contiguous distance range.
+     */
+    private final LongFunction<K> classifier;
+    /**
+     * The non-empty buckets, readable without locking.
+     */
+    private final Map<K, Bucket<K>> buckets = new ConcurrentHashMap<>();
+    /**
+     * The non-empty buckets, ordered by their upper distance.
+     */
+    private final TreeMap<Long, Bucket<K>> bucketsByDistance = new TreeMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private volatile long now;
+
+    private TimeAgoHistogram(long now, LongFunction<K> classifier) {
+        this.now = now;
+        this.classifier = classifier;
+    }
+
+    /**
+     * Returns the current reference time.
+     *
+     * @return the reference time
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Returns the number of date times in this histogram.
+     *
+     * @return the number of date times
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Returns the number of date times in the given bucket.
+     *
+     * @param key the bucket key
+     * @return the number of date times
+     */
+    public long count(K key) {
+        final Bucket<K> bucket = buckets.get(key);
+        return null == bucket ? 0 : bucket.count.get();
+    }
+
+    /**
+     * Returns a snapshot of all non-empty buckets and their counts.
+     *
+     * @return the counts by bucket key
+     */
+    public Map<K, Long> counts() {
+        final Map<K, Long> result = new HashMap<>();
+        for (Bucket<K> bucket : buckets.values()) {
+            final long count = bucket.count.get();
+            if (count > 0)
+                result.put(bucket.key, count);
+        }
+        return result;
+    }
+
+    /**
+     * Adds a date time.
+     *
+     * @param time the date time
+     */
+    public synchronized void add(long time) {
+        final long dim = TimeAgo.getTimeDistanceInMinutes(time, now);
+        final Bucket<K> bucket = bucketOf(classifier.apply(dim), dim);
+        bucket.times.merge(time, 1, Integer::sum);
+        bucket.count.incrementAndGet();
+        size.incrementAndGet();
+    }
+
+    /**
+     * Removes one occurrence of a date time.
+     *
+     * @param time the date time
+     * @return true if the date time was present
+     */
+    public synchronized boolean remove(long time) {
+        final long dim = TimeAgo.getTimeDistanceInMinutes(time, now);
+        final Bucket<K> bucket = buckets.get(classifier.apply(dim));
+        if (null == bucket)
+            return false;
+        final Integer multiplicity = bucket.times.get(time);
+        if (null == multiplicity)
+            return false;
+        if (multiplicity == 1)
+            bucket.times.remove(time);
+        else
+            bucket.times.put(time, multiplicity - 1);
+        bucket.count.decrementAndGet();
+        size.decrementAndGet();
+        if (bucket.times.isEmpty())
+            dropBucket(bucket);
+        return true;
+    }
+
+    /**
+     * Moves the reference time forward, moving every date time that crossed into another bucket.
+     *
+     * @param now the new reference time
+     * @throws IllegalArgumentException if the new reference time is before the current one
+     */
+    public synchronized void advanceTo(long now) {
+        if (now < this.now)
+            throw new IllegalArgumentException("reference time cannot move backwards: " + now + " < " + this.now);
+        this.now = now;
+
+        // oldest buckets first, so that moved date times always land in an already visited bucket
+        final List<Bucket<K>> visiting = new ArrayList<>(bucketsByDistance.descendingMap().values());
+        for (Bucket<K> bucket : visiting) {
+            if (bucket.upperDistance == Long.MAX_VALUE)
+                continue;
+            while (!bucket.times.isEmpty()) {
+                final long time = bucket.times.firstKey();
+                final long dim = TimeAgo.getTimeDistanceInMinutes(time, now);
+                if (dim < bucket.upperDistance)
+                    break;
+                final Bucket<K> target = bucketOf(classifier.apply(dim), dim);
+                if (target == bucket)
+                    throw new IllegalStateException("key " + bucket.key + " found again at distance " + dim
+                            + ", beyond its upper distance " + bucket.upperDistance + "; keys must cover contiguous ranges");
+                final int multiplicity = bucket.times.pollFirstEntry().getValue();
+                target.times.merge(time, multiplicity, Integer::sum);
+                bucket.count.addAndGet(-multiplicity);
+                target.count.addAndGet(multiplicity);
+            }
+            if (bucket.times.isEmpty())
+                dropBucket(bucket);
+        }
+    }
+
+    /**
+     * Returns the bucket for the key, creating it if necessary.
+     *
+     * @param key the bucket key
+     * @param dim a time distance in minutes belonging to the key
+     * @return the bucket
+     */
+    private Bucket<K> bucketOf(K key, long dim) {
+        Bucket<K> bucket = buckets.get(key);
+        if (null == bucket) {
+            bucket = new Bucket<>(key, upperDistanceOf(key, dim));
+            bucketsByDistance.put(bucket.upperDistance, bucket);
+            buckets.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    private void dropBucket(Bucket<K> bucket) {
+        buckets.remove(bucket.key);
+        bucketsByDistance.remove(bucket.upperDistance);
+    }
+
+    /**
+     * Finds the lowest distance above dim that maps to another key, by exponential then binary search.
+     *
+     * @param key the bucket key
+     * @param dim a time distance in minutes belonging to the key
+     * @return the upper distance, or Long.MAX_VALUE if the key has no upper bound
+     */
+    private long upperDistanceOf(K key, long dim) {
+        long inside = dim, step = 1;
+        long outside;
+        while (true) {
+            if (step < 0 || inside > Long.MAX_VALUE - step) {
+                if (key.equals(classifier.apply(Long.MAX_VALUE)))
+                    return Long.MAX_VALUE;
+                outside = Long.MAX_VALUE;
+                break;
+            }
+            final long probe = inside + step;
+            if (!key.equals(classifier.apply(probe))) {
+                outside = probe;
+                break;
+            }
+            inside = probe;
+            step <<= 1;
+        }
+        while (outside - inside > 1) {
+            final long middle = inside + (outside - inside) / 2;
+            if (key.equals(classifier.apply(middle)))
+                inside = middle;
+            else
+                outside = middle;
+        }
+        return outside;
+    }
+}
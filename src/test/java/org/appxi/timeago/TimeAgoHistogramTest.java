@@ -0,0 +1,177 @@
+package org.appxi.timeago;
+/*
+ * Copyright (c) 2020, marlonlom, yuanuo
+ *
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.function.LongFunction;
+
+import static org.appxi.timeago.TimeAgo.Periods;
+
+/**
+ * Unit tests Class for TimeAgoHistogram usage.
+ *
+ * @author yuanuo
+ */
+public class TimeAgoHistogramTest {
+    /**
+     * The initial reference time.
+     */
+    private static final long NOW = 1_600_000_000_000L;
+
+    private static final long MINUTE = 60_000L;
+
+    /**
+     * Gets expected counts by classifying every date time again.
+     *
+     * @param times      the date times
+     * @param now        the reference time
+     * @param classifier the bucket key of a time distance in minutes
+     * @return the expected counts
+     */
+    private static <K> Map<K, Long> expectedCounts(List<Long> times, long now, LongFunction<K> classifier) {
+        final Map<K, Long> result = new HashMap<>();
+        for (long time : times)
+            result.merge(classifier.apply(TimeAgo.getTimeDistanceInMinutes(time, now)), 1L, Long::sum);
+        return result;
+    }
+
+    /**
+     * Advances the histogram at random and compares it with a full classification after every step.
+     *
+     * @param histogram  the histogram, created at NOW
+     * @param classifier the bucket key of a time distance in minutes
+     */
+    private static <K> void assertMatchesFullClassification(TimeAgoHistogram<K> histogram, LongFunction<K> classifier) {
+        final Random random = new Random(2021);
+        final List<Long> times = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final long time = NOW - (long) ((random.nextDouble() - 0.3) * 1_500_000 * MINUTE);
+            times.add(time);
+            histogram.add(time);
+        }
+
+        long now = NOW;
+        for (int i = 0; i < 100; i++) {
+            now += (long) (random.nextDouble() * (i % 10 == 0 ? 100_000 : 100) * MINUTE);
+            histogram.advanceTo(now);
+            if (i % 2 == 0)
+                Assert.assertTrue(histogram.remove(times.remove(random.nextInt(times.size()))));
+            if (i % 3 == 0) {
+                final long time = now - (long) ((random.nextDouble() - 0.5) * 200_000 * MINUTE);
+                times.add(time);
+                histogram.add(time);
+            }
+            Assert.assertEquals(expectedCounts(times, now, classifier), histogram.counts());
+        }
+    }
+
+    @Test
+    public void shouldCountDateTimesByPeriod() {
+        final TimeAgoHistogram<Periods> histogram = TimeAgoHistogram.byPeriod(NOW);
+        histogram.add(NOW);
+        histogram.add(NOW - 5 * MINUTE);
+        histogram.add(NOW - 5 * MINUTE);
+        histogram.add(NOW - 1500 * MINUTE);
+        histogram.add(NOW + 10 * MINUTE);
+
+        Assert.assertEquals(5, histogram.size());
+        Assert.assertEquals(1, histogram.count(Periods.NOW));
+        Assert.assertEquals(2, histogram.count(Periods.XMINUTES_PAST));
+        Assert.assertEquals(1, histogram.count(Periods.ONEDAY_PAST));
+        Assert.assertEquals(1, histogram.count(Periods.XMINUTES_FUTURE));
+        Assert.assertEquals(0, histogram.count(Periods.XYEARS_PAST));
+    }
+
+    @Test
+    public void shouldMoveDateTimesWhenAdvancing() {
+        final TimeAgoHistogram<Periods> histogram = TimeAgoHistogram.byPeriod(NOW);
+        histogram.add(NOW);
+        histogram.add(NOW + 40 * MINUTE);
+
+        histogram.advanceTo(NOW + 60 * MINUTE);
+        Assert.assertEquals(1, histogram.count(Periods.ABOUTANHOUR_PAST));
+        Assert.assertEquals(1, histogram.count(Periods.XMINUTES_PAST));
+        Assert.assertEquals(0, histogram.count(Periods.NOW));
+        Assert.assertEquals(0, histogram.count(Periods.XMINUTES_FUTURE));
+
+        histogram.advanceTo(NOW + (2 * 525600 - 100) * MINUTE);
+        Assert.assertEquals(Map.of(Periods.ALMOSTTWOYEARS_PAST, 2L), histogram.counts());
+    }
+
+    @Test
+    public void shouldRemoveDateTimes() {
+        final TimeAgoHistogram<Periods> histogram = TimeAgoHistogram.byPeriod(NOW);
+        histogram.add(NOW - 5 * MINUTE);
+        histogram.add(NOW - 5 * MINUTE);
+        histogram.advanceTo(NOW + 100 * MINUTE);
+
+        Assert.assertTrue(histogram.remove(NOW - 5 * MINUTE));
+        Assert.assertEquals(1, histogram.count(Periods.XHOURS_PAST));
+        Assert.assertTrue(histogram.remove(NOW - 5 * MINUTE));
+        Assert.assertFalse(histogram.remove(NOW - 5 * MINUTE));
+        Assert.assertEquals(0, histogram.size());
+        Assert.assertTrue(histogram.counts().isEmpty());
+    }
+
+    @Test
+    public void shouldCountDateTimesByPeriodValue() {
+        final TimeAgoHistogram<TimeAgoHistogram.PeriodValue> histogram = TimeAgoHistogram.byPeriodValue(NOW);
+        histogram.add(NOW - 5 * MINUTE);
+        histogram.add(NOW - 3 * 60 * MINUTE);
+
+        histogram.advanceTo(NOW + 60 * MINUTE);
+        Assert.assertEquals(1, histogram.count(new TimeAgoHistogram.PeriodValue(Periods.ABOUTANHOUR_PAST, 0)));
+        Assert.assertEquals(1, histogram.count(new TimeAgoHistogram.PeriodValue(Periods.XHOURS_PAST, 4)));
+    }
+
+    @Test
+    public void shouldMatchFullClassification() {
+        assertMatchesFullClassification(TimeAgoHistogram.byPeriod(NOW), Periods::findByDistanceMinutes);
+    }
+
+    @Test
+    public void shouldMatchFullClassificationByPeriodValue() {
+        assertMatchesFullClassification(TimeAgoHistogram.byPeriodValue(NOW), TimeAgoHistogram::periodValue);
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldAdvanceWithDistantFutureDateTimes() {
+        final long distant = NOW + 3L * (1L << 32) * MINUTE;
+        final long threeYears = NOW + 3L * 525600 * MINUTE;
+        final List<Long> times = List.of(distant, threeYears);
+        final TimeAgoHistogram<Periods> histogram = TimeAgoHistogram.byPeriod(NOW);
+        final TimeAgoHistogram<TimeAgoHistogram.PeriodValue> values = TimeAgoHistogram.byPeriodValue(NOW);
+        for (long time : times) {
+            histogram.add(time);
+            values.add(time);
+        }
+
+        final long now = NOW + 10 * MINUTE;
+        histogram.advanceTo(now);
+        values.advanceTo(now);
+        Assert.assertEquals(Map.of(Periods.XYEARS_FUTURE, 2L), histogram.counts());
+        Assert.assertEquals(expectedCounts(times, now, TimeAgoHistogram::periodValue), values.counts());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMovingBackwards() {
+        TimeAgoHistogram.byPeriod(NOW).advanceTo(NOW - 1);
+    }
+}
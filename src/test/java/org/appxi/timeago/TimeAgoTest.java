@@ -20,6 +20,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.text.MessageFormat;
 import java.util.*;
 
 import static org.appxi.timeago.TimeAgo.Periods;
@@ -247,6 +248,20 @@ public class TimeAgoTest {
         Assert.assertEquals(expected, results);
     }
 
+    /**
+     * Should show future date time with years, even when the distance in minutes overflows an int.
+     */
+    @Test
+    public void shouldShowFutureDateTimeWithYearsBeyondIntMinutes() {
+        final long distanceMinutes = -1 - 2 * (1L << 32);
+        Assert.assertEquals(Periods.XYEARS_FUTURE, Periods.findByDistanceMinutes(distanceMinutes));
+
+        String results = TimeAgo.using(System.currentTimeMillis() - distanceMinutes * 60_000, mTimeAgoMessages);
+        String expected = MessageFormat.format(localBundle.getString(Periods.XYEARS_FUTURE.msgKey),
+                Math.abs(Math.round(distanceMinutes / 525600F)));
+        Assert.assertEquals(expected, results);
+    }
+
     /**
      * Should show future date time over one year.
      */